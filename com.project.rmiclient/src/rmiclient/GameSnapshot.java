@@ -0,0 +1,185 @@
+package rmiclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import rmiserver.Sudoku;
+
+/**
+ * The Game snapshot is a game in progress, saved in a small binary format:
+ * <pre>
+ * int     magic, byte version
+ * byte    difficulty, short difficulty option (how many cells were removed)
+ * long    elapsed milliseconds
+ * UTF     username
+ * 41 B    board - 81 cells, 4 bits each
+ * 41 B    solved board
+ * 11 B    givens mask - 81 bits, set for the cells which came with the sudoku
+ * record  the moves so far {@link MoveLog}
+ * </pre>
+ */
+class GameSnapshot {
+
+  private static final int MAGIC = 0x53444B53; // "SDKS"
+  private static final byte VERSION = 1;
+  private static final int CELLS = 81;
+  private static final int PACKED_CELLS_BYTES = (CELLS + 1) / 2;
+  private static final int GIVENS_BYTES = (CELLS + 7) / 8;
+
+  private final Player.Difficulty difficulty;
+  private final int difficultyOption;
+  private final long elapsedMillis;
+  private final String username;
+  private final int[] cells;
+  private final int[] solvedCells;
+  private final boolean[] givens;
+
+  public GameSnapshot(Player.Difficulty difficulty, int difficultyOption, long elapsedMillis, String username,
+                      Sudoku sudoku, boolean[] givens) {
+    this.difficulty = difficulty;
+    this.difficultyOption = difficultyOption;
+    this.elapsedMillis = elapsedMillis;
+    this.username = username;
+    this.cells = new int[CELLS];
+    this.solvedCells = new int[CELLS];
+    for (int i = 0; i < CELLS; i++) {
+      cells[i] = sudoku.getNumber(i / 9, i % 9, false);
+      solvedCells[i] = sudoku.getNumber(i / 9, i % 9, true);
+    }
+    this.givens = givens.clone();
+  }
+
+  private GameSnapshot(Player.Difficulty difficulty, int difficultyOption, long elapsedMillis, String username,
+                       int[] cells, int[] solvedCells, boolean[] givens) {
+    this.difficulty = difficulty;
+    this.difficultyOption = difficultyOption;
+    this.elapsedMillis = elapsedMillis;
+    this.username = username;
+    this.cells = cells;
+    this.solvedCells = solvedCells;
+    this.givens = givens;
+  }
+
+  /**
+   * Encodes the snapshot together with the moves so far.
+   *
+   * @param moveLog the moves of the game {@link MoveLog}
+   * @return the encoded snapshot
+   */
+  public byte[] encode(MoveLog moveLog) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream outputStream = new DataOutputStream(bytes)) {
+      outputStream.writeInt(MAGIC);
+      outputStream.writeByte(VERSION);
+      outputStream.writeByte(difficulty.ordinal());
+      outputStream.writeShort(difficultyOption);
+      outputStream.writeLong(elapsedMillis);
+      outputStream.writeUTF(username);
+      outputStream.write(packCells(cells));
+      outputStream.write(packCells(solvedCells));
+      outputStream.write(packGivens(givens));
+      moveLog.writeRecord(outputStream);
+    } catch (IOException ex) { // not possible with a byte array
+      throw new IllegalStateException(ex);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes a snapshot, written by {@link #encode(MoveLog)}. The moves are read into the given move log.
+   *
+   * @param encoded the encoded snapshot
+   * @param moveLog the move log which receives the saved moves {@link MoveLog}
+   * @return the snapshot
+   * @throws IOException if the snapshot is not complete or not a snapshot at all
+   */
+  public static GameSnapshot decode(byte[] encoded, MoveLog moveLog) throws IOException {
+    try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      if (inputStream.readInt() != MAGIC || inputStream.readByte() != VERSION) {
+        throw new IOException("Unknown snapshot format.");
+      }
+      Player.Difficulty[] difficulties = Player.Difficulty.values();
+      int difficultyIdx = inputStream.readUnsignedByte();
+      if (difficultyIdx >= difficulties.length) {
+        throw new IOException("Unknown difficulty: " + difficultyIdx);
+      }
+      int difficultyOption = inputStream.readUnsignedShort();
+      long elapsedMillis = inputStream.readLong();
+      String username = inputStream.readUTF();
+      int[] cells = unpackCells(inputStream);
+      int[] solvedCells = unpackCells(inputStream);
+      boolean[] givens = unpackGivens(inputStream);
+      moveLog.readRecord(inputStream);
+      return new GameSnapshot(difficulties[difficultyIdx], difficultyOption, elapsedMillis, username,
+          cells, solvedCells, givens);
+    }
+  }
+
+  public Sudoku toSudoku() {
+    return new Sudoku(cells, solvedCells);
+  }
+
+  public Player.Difficulty getDifficulty() {
+    return difficulty;
+  }
+
+  public int getDifficultyOption() {
+    return difficultyOption;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public boolean[] getGivens() {
+    return givens.clone();
+  }
+
+  private static byte[] packCells(int[] cells) {
+    byte[] packed = new byte[PACKED_CELLS_BYTES];
+    for (int i = 0; i < CELLS; i++) {
+      packed[i / 2] |= (byte) (i % 2 == 0 ? cells[i] << 4 : cells[i]);
+    }
+    return packed;
+  }
+
+  private static int[] unpackCells(DataInputStream inputStream) throws IOException {
+    byte[] packed = new byte[PACKED_CELLS_BYTES];
+    inputStream.readFully(packed);
+    int[] cells = new int[CELLS];
+    for (int i = 0; i < CELLS; i++) {
+      int cell = i % 2 == 0 ? (packed[i / 2] >> 4) & 0xF : packed[i / 2] & 0xF;
+      if (cell > 9) {
+        throw new IOException("Invalid cell value: " + cell);
+      }
+      cells[i] = cell;
+    }
+    return cells;
+  }
+
+  private static byte[] packGivens(boolean[] givens) {
+    byte[] packed = new byte[GIVENS_BYTES];
+    for (int i = 0; i < CELLS; i++) {
+      if (givens[i]) {
+        packed[i / 8] |= (byte) (1 << (i % 8));
+      }
+    }
+    return packed;
+  }
+
+  private static boolean[] unpackGivens(DataInputStream inputStream) throws IOException {
+    byte[] packed = new byte[GIVENS_BYTES];
+    inputStream.readFully(packed);
+    boolean[] givens = new boolean[CELLS];
+    for (int i = 0; i < CELLS; i++) {
+      givens[i] = (packed[i / 8] & (1 << (i % 8))) != 0;
+    }
+    return givens;
+  }
+}
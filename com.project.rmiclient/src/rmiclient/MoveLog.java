@@ -0,0 +1,123 @@
+package rmiclient;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The Move log records the moves of one game in a compact binary form.
+ * Each move is two varints: the zigzag encoded difference from the previous cell index shifted left by 4
+ * and or-ed with the digit, then the milliseconds passed since the previous move.
+ * Most moves take 2-3 bytes and appending doesn't allocate unless the buffer is full.
+ */
+public class MoveLog {
+
+  private static final int INITIAL_CAPACITY = 256;
+  private static final int MAX_MOVE_BYTES = 15; // two varints: up to 5 + 10 bytes.
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+  private int size;
+  private int previousCell;
+  private int moves;
+
+  /**
+   * Appends a move to the log.
+   *
+   * @param cellIndex       the cell index - row * 9 + column
+   * @param digit           the digit [1;9]
+   * @param timeDeltaMillis the milliseconds passed since the previous move (or the game start)
+   */
+  public void append(int cellIndex, int digit, long timeDeltaMillis) {
+    if (size + MAX_MOVE_BYTES > bytes.length) {
+      bytes = Arrays.copyOf(bytes, bytes.length * 2);
+    }
+    int delta = cellIndex - previousCell;
+    size = writeVarint(bytes, size, ((long) ((delta << 1) ^ (delta >> 31)) << 4) | digit);
+    size = writeVarint(bytes, size, Math.max(timeDeltaMillis, 0));
+    previousCell = cellIndex;
+    moves++;
+  }
+
+  /**
+   * Clears the log for a new game. The buffer is kept.
+   */
+  public void reset() {
+    size = 0;
+    previousCell = 0;
+    moves = 0;
+  }
+
+  public int getMoves() {
+    return moves;
+  }
+
+  /**
+   * Writes the log as one record: the length of the encoded moves as a varint, followed by the moves.
+   *
+   * @param outputStream the output stream
+   * @throws IOException if writing failed
+   */
+  public void writeRecord(OutputStream outputStream) throws IOException {
+    byte[] length = new byte[5];
+    outputStream.write(length, 0, writeVarint(length, 0, size));
+    outputStream.write(bytes, 0, size);
+  }
+
+  /**
+   * Replaces the log with a record written by {@link #writeRecord(OutputStream)}, so a saved game can go on.
+   *
+   * @param inputStream the input stream
+   * @throws IOException if reading failed or the record is not complete
+   */
+  public void readRecord(InputStream inputStream) throws IOException {
+    long length = 0;
+    for (int shift = 0; ; shift += 7) {
+      int current = inputStream.read();
+      if (current == -1) {
+        throw new EOFException("The move log record has no length.");
+      }
+      length |= (long) (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        break;
+      }
+    }
+
+    reset();
+    if (length + MAX_MOVE_BYTES > bytes.length) {
+      bytes = new byte[(int) length + MAX_MOVE_BYTES];
+    }
+    size = inputStream.readNBytes(bytes, 0, (int) length);
+    if (size != length) {
+      reset();
+      throw new EOFException("The move log record is not complete.");
+    }
+
+    int position = 0;
+    while (position < size) { // find the last cell, the next move is encoded relative to it.
+      long cellAndDigit = 0;
+      int shift = 0;
+      byte current;
+      do {
+        current = bytes[position++];
+        cellAndDigit |= (long) (current & 0x7F) << shift;
+        shift += 7;
+      } while (current < 0);
+      while (bytes[position++] < 0) { // skip the time delta
+      }
+      int zigzag = (int) (cellAndDigit >>> 4);
+      previousCell += (zigzag >>> 1) ^ -(zigzag & 1);
+      moves++;
+    }
+  }
+
+  static int writeVarint(byte[] buffer, int position, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return position;
+  }
+}
@@ -0,0 +1,153 @@
+package rmiclient;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Move log reader streams the records written by {@link MoveLogWriter} and decodes the moves one by one,
+ * so any number of games can be replayed or analysed without loading them in memory.
+ */
+public class MoveLogReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final InputStream inputStream;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private long consumed; // bytes decoded so far, needed to find the end of each record.
+  private byte[] text = new byte[64]; // reused for the strings in the record keys.
+
+  public MoveLogReader(InputStream inputStream) {
+    this.inputStream = inputStream;
+  }
+
+  /**
+   * Reads all the records until the end of the stream and passes the key of every game and its moves to the visitor.
+   *
+   * @param visitor the visitor {@link Visitor}
+   * @return the number of games read
+   * @throws IOException if reading failed or the last record is not complete
+   */
+  public int readAll(Visitor visitor) throws IOException {
+    int game = 0;
+    int first;
+    while ((first = readByte()) != -1) {
+      long timestamp = readVarint(first);
+      String username = readString();
+      String difficulty = readString();
+      String result = readString();
+      visitor.onGameStart(game, timestamp, username, difficulty, result);
+
+      long end = readVarint(readByte());
+      end += consumed;
+
+      int cell = 0;
+      int moves = 0;
+      while (consumed < end) {
+        long cellAndDigit = readVarint(readByte());
+        long timeDelta = readVarint(readByte());
+
+        int zigzag = (int) (cellAndDigit >>> 4);
+        cell += (zigzag >>> 1) ^ -(zigzag & 1);
+        visitor.onMove(game, cell, (int) (cellAndDigit & 0xF), timeDelta);
+        moves++;
+      }
+      visitor.onGameEnd(game++, moves);
+    }
+    return game;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  private String readString() throws IOException {
+    long length = readVarint(readByte());
+    if (length < 0 || length > BUFFER_SIZE) {
+      throw new IOException("Invalid string length in the move log: " + length);
+    }
+    if (length > text.length) {
+      text = new byte[(int) length];
+    }
+    for (int i = 0; i < length; i++) {
+      int current = readByte();
+      if (current == -1) {
+        throw new EOFException("The move log ends in the middle of a record.");
+      }
+      text[i] = (byte) current;
+    }
+    return new String(text, 0, (int) length, StandardCharsets.UTF_8);
+  }
+
+  private long readVarint(int first) throws IOException {
+    long value = 0;
+    int shift = 0;
+    int current = first;
+    while (true) {
+      if (current == -1) {
+        throw new EOFException("The move log ends in the middle of a record.");
+      }
+      value |= (long) (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+      current = readByte();
+    }
+  }
+
+  private int readByte() throws IOException {
+    if (position == limit) {
+      limit = inputStream.read(buffer, 0, BUFFER_SIZE);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    consumed++;
+    return buffer[position++] & 0xFF;
+  }
+
+  /**
+   * The Visitor receives the decoded moves.
+   */
+  public interface Visitor {
+
+    /**
+     * Called before the moves of each game, with the key of the game.
+     *
+     * @param game       the game index in the file
+     * @param timestamp  the time the game ended, epoch milliseconds
+     * @param username   the username
+     * @param difficulty the difficulty
+     * @param result     the result
+     */
+    default void onGameStart(int game, long timestamp, String username, String difficulty, String result) {
+    }
+
+    /**
+     * Called for every move, in the order they were played.
+     *
+     * @param game            the game index in the file
+     * @param cellIndex       the cell index - row * 9 + column
+     * @param digit           the digit
+     * @param timeDeltaMillis the milliseconds passed since the previous move
+     */
+    void onMove(int game, int cellIndex, int digit, long timeDeltaMillis);
+
+    /**
+     * Called after the last move of each game.
+     *
+     * @param game  the game index in the file
+     * @param moves the number of moves in the game
+     */
+    default void onGameEnd(int game, int moves) {
+    }
+  }
+}
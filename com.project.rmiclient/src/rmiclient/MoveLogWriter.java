@@ -0,0 +1,48 @@
+package rmiclient;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MoveLogWriter appends the moves of each game to a binary file, next to the players' stats.
+ * Each record starts with its own key, so it doesn't depend on the rows written by {@link CsvWriter}:
+ * <pre>
+ * varint  time of the game end, epoch milliseconds
+ * string  username, difficulty, result - each a varint length and UTF-8 bytes
+ * record  the moves {@link MoveLog}
+ * </pre>
+ */
+public class MoveLogWriter {
+
+  public static final String FILE_NAME = "players_moves.bin";
+
+  /**
+   * Write the moves to file as one record: if the file doesn't exist, it's created.
+   *
+   * @param player  the player's outcome of the game {@link Player}
+   * @param moveLog the moves of the game {@link MoveLog}
+   */
+  public static void writeMovesToFile(Player player, MoveLog moveLog) {
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(FILE_NAME, true))) {
+      byte[] number = new byte[10];
+      outputStream.write(number, 0, MoveLog.writeVarint(number, 0, System.currentTimeMillis()));
+      writeString(outputStream, player.getUsername());
+      writeString(outputStream, String.valueOf(player.getDifficulty()));
+      writeString(outputStream, String.valueOf(player.getResult()));
+      moveLog.writeRecord(outputStream);
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+  }
+
+  private static void writeString(OutputStream outputStream, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    byte[] length = new byte[5];
+    outputStream.write(length, 0, MoveLog.writeVarint(length, 0, bytes.length));
+    outputStream.write(bytes);
+  }
+
+}
@@ -15,6 +15,18 @@ public class Player {
     this.result = result;
   }
 
+  public String getUsername() {
+    return username;
+  }
+
+  public Difficulty getDifficulty() {
+    return difficulty;
+  }
+
+  public Result getResult() {
+    return result;
+  }
+
   @Override
   public String toString() {
     return username + ',' + difficulty + "," + result + ";\n";
@@ -26,7 +38,9 @@ public class Player {
   enum Difficulty {
     EASY,
     MEDIUM,
-    HARD;
+    HARD,
+    DAILY,
+    RACE;
   }
 
   /**
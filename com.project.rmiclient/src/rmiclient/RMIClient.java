@@ -1,12 +1,19 @@
 package rmiclient;
 
+import java.io.IOException;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -31,6 +38,9 @@ import javafx.stage.Popup;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import rmiserver.RMIServer;
+import rmiserver.RaceTicket;
+import rmiserver.RaceUpdate;
+import rmiserver.ServerBusyException;
 import rmiserver.ServerInterface;
 import rmiserver.Sudoku;
 import rmiserver.SudokuOperations;
@@ -50,15 +60,38 @@ public class RMIClient extends Application {
   private Sudoku sudoku;
   private int chosenNumber;
   private int difficultyOption; // Represents how many of the cells will be removed from the generated sudoku board.
+  private final MoveLog moveLog = new MoveLog();
+  private long lastMoveNanos; // Needed for the time between the moves.
+  private boolean[] givens; // The cells which came with the sudoku, index = row * 9 + column.
+  private boolean playing; // True while a game is in progress.
+  // Snapshot related elements:
+  private static final int SNAPSHOT_INTERVAL_SECONDS = 10;
+  private final SnapshotWriter snapshotWriter = new SnapshotWriter();
+  // Race related elements:
+  private static final int RACE_DIFFICULTY = 35;
+  private ServerInterface serverInterface;
+  private RaceProgressListener raceListener; // Exported only while racing, for the current race only.
+  private RaceTicket raceTicket; // Not null while racing.
+  private final Map<Integer, RaceUpdate> opponents = new TreeMap<>(); // by id, usernames may repeat.
+  private final ExecutorService raceReporter = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "race-reporter"); // remote calls must not block the JavaFX thread.
+    thread.setDaemon(true);
+    return thread;
+  });
   // JavaFX related elements:
   private final GridPane table = new GridPane();
   private Timeline timeline;
+  private Date start; // The start of the timer.
+  private int ticks; // The timeline cycles since the start of the timer, one per second.
   private final TextArea timeArea = new TextArea();
+  private final Label raceProgress = new Label();
   private final GridPane numberOptions = new GridPane();
   private final Popup popup = new Popup();
   private final VBox initialButtons = new VBox();
   private final Label usernameLabel = new Label("Username:");
   private final TextField usernameText = new TextField(DEFAULT_USER);
+  private final Label roomLabel = new Label("Race room:");
+  private final TextField roomText = new TextField(); // Empty for a new room.
   private final Button startGame = new Button("Start Game");
   private final Button solve = new Button("Solve");
   private Stage stage;
@@ -67,7 +100,7 @@ public class RMIClient extends Application {
   public void start(Stage stage) throws Exception {
     // make a connection to the RMI Server
     Registry registry = LocateRegistry.getRegistry(1099);
-    ServerInterface serverInterface = (ServerInterface) registry.lookup(RMIServer.SERVICE);
+    serverInterface = (ServerInterface) registry.lookup(RMIServer.SERVICE);
 
     this.stage = stage;
     // A popup, containing the user info and the difficulty buttons.
@@ -94,8 +127,20 @@ public class RMIClient extends Application {
     stage.setScene(scene);
     stage.setTitle("Sudoku");
     stage.show();
-    // When the game is terminated, the player's outcome is saved to a file.
-    stage.setOnCloseRequest(windowEvent -> CsvWriter.writeResultToFile(new Player(usernameText.getText(), difficulty, result)));
+    // When the game is terminated, the game in progress is saved or, if it cannot be saved (a race),
+    // the player's outcome is saved to a file. A finished game was already written.
+    stage.setOnCloseRequest(windowEvent -> {
+      boolean inProgress = playing;
+      boolean saved = saveSnapshot();
+      timeline.stop(); // no more snapshots after the last one.
+      playing = false;
+      leaveRace();
+      if (inProgress && !saved) {
+        writeResult(result);
+      }
+      snapshotWriter.shutdown(); // the last snapshot is written before the application exits.
+    });
+    resumeGame(); // the game from the previous launch, if it was not finished.
   }
 
   public static void main(String[] args) {
@@ -111,6 +156,8 @@ public class RMIClient extends Application {
     initialButtons.setAlignment(Pos.CENTER);
     initialButtons.getChildren().add(startGame);
     initialButtons.getChildren().add(timeArea);
+    raceProgress.setVisible(false); // shown only during a race.
+    initialButtons.getChildren().add(raceProgress);
     initialButtons.getChildren().add(solve);
   }
 
@@ -122,10 +169,12 @@ public class RMIClient extends Application {
   private void setSolveButton() {
     solve.setVisible(false); // it must not be shown at the very beginning.
     solve.setOnAction(e -> {
+      playing = false; // the game is over, so it's not saved anymore.
+      snapshotWriter.delete();
       table.setVisible(false); // hide the sudoku table
       setSudokuTable(true); // fill the sudoku table with the right numbers
       table.setVisible(true); // show the sudoku table
-      CsvWriter.writeResultToFile(new Player(usernameText.getText(), difficulty, Player.Result.FAIL)); // write player's outcome to file
+      writeResult(Player.Result.FAIL); // write player's outcome to file
       solve.setVisible(false); // hide the solve button
     });
   }
@@ -143,24 +192,21 @@ public class RMIClient extends Application {
     usernameBox.getChildren().addAll(usernameLabel, usernameText);
     usernameBox.setSpacing(10);
 
+    HBox roomBox = new HBox();
+    roomText.setPromptText("empty for a new room");
+    roomBox.getChildren().addAll(roomLabel, roomText);
+    roomBox.setSpacing(10);
+
     Button easy = new Button("Easy");
     Button medium = new Button("Medium");
     Button hard = new Button("Hard");
-    easy.setOnAction(actionEvent -> {
-      difficultyOption = 15;
-      difficulty = Player.Difficulty.EASY;
-      requestSudoku(serverInterface);
-    });
-    medium.setOnAction(actionEvent -> {
-      difficultyOption = 35;
-      difficulty = Player.Difficulty.MEDIUM;
-      requestSudoku(serverInterface);
-    });
-    hard.setOnAction(actionEvent -> {
-      difficultyOption = 55;
-      difficulty = Player.Difficulty.HARD;
-      requestSudoku(serverInterface);
-    });
+    Button daily = new Button("Daily Challenge");
+    Button race = new Button("Race");
+    easy.setOnAction(actionEvent -> requestSudoku(serverInterface, Player.Difficulty.EASY, 15));
+    medium.setOnAction(actionEvent -> requestSudoku(serverInterface, Player.Difficulty.MEDIUM, 35));
+    hard.setOnAction(actionEvent -> requestSudoku(serverInterface, Player.Difficulty.HARD, 55));
+    daily.setOnAction(actionEvent -> requestSudoku(serverInterface, Player.Difficulty.DAILY, ServerInterface.DAILY_DIFFICULTY));
+    race.setOnAction(actionEvent -> requestSudoku(serverInterface, Player.Difficulty.RACE, RACE_DIFFICULTY));
 
     VBox difficultyOptions = new VBox();
     difficultyOptions.setSpacing(10);
@@ -170,21 +216,48 @@ public class RMIClient extends Application {
     difficultyOptions.getChildren().add(easy);
     difficultyOptions.getChildren().add(medium);
     difficultyOptions.getChildren().add(hard);
+    difficultyOptions.getChildren().add(daily);
+    difficultyOptions.getChildren().add(roomBox);
+    difficultyOptions.getChildren().add(race);
 
     return difficultyOptions;
   }
 
   /**
-   * Request a sudoku from the server. If something failed, error alert is shown.
+   * Request a sudoku from the server - the daily challenge, the race one or a new one with the chosen difficulty.
+   * If something failed, error alert is shown.
    * Triggers creating a sudoku table, resets the timer and show the needed game components.
+   * The difficulty is changed and a previous race is left only when the new sudoku is received,
+   * so a failed request doesn't change the current game.
    *
-   * @param serverInterface the "connection" to the RMI Server {@link ServerInterface}
+   * @param serverInterface     the "connection" to the RMI Server {@link ServerInterface}
+   * @param newDifficulty       the chosen difficulty
+   * @param newDifficultyOption how many of the cells will be removed from the generated sudoku board.
    */
-  private void requestSudoku(ServerInterface serverInterface) {
+  private void requestSudoku(ServerInterface serverInterface, Player.Difficulty newDifficulty, int newDifficultyOption) {
     popup.hide(); // the popup is not needed anymore.
+    RaceProgressListener newRaceListener = null;
+    RaceTicket newRaceTicket = null;
+    Sudoku newSudoku;
     try {
-      sudoku = serverInterface.startSudoku(difficultyOption); // request a sudoku from the server
-    } catch (RemoteException e) {
+      if (newDifficulty == Player.Difficulty.RACE) {
+        newRaceListener = new RaceProgressListener(this::showRaceProgress);
+        newRaceTicket = serverInterface.joinRace(roomText.getText(), usernameText.getText(), newDifficultyOption, newRaceListener);
+        newSudoku = newRaceTicket.getSudoku().toSudoku();
+      } else {
+        newSudoku = fetchSudoku(serverInterface, newDifficulty, newDifficultyOption); // request a sudoku from the server
+      }
+    } catch (IOException e) {
+      leaveRace(newRaceTicket, newRaceListener); // the new race, if it was joined, is not played.
+      // RMI wraps the exceptions thrown by the server in a ServerException.
+      if (e.getCause() instanceof ServerBusyException) {
+        Alert alert = new Alert(Alert.AlertType.WARNING); // the server rejected the request, it can be retried.
+        alert.setTitle("Server busy");
+        alert.setHeaderText("The server is busy. Please, try again in a moment.");
+        alert.showAndWait();
+        popup.show(stage);
+        return;
+      }
       Alert alert = new Alert(Alert.AlertType.ERROR); // in case of error, alert is shown
       alert.setTitle("End of game");
       alert.setHeaderText("Something went wrong. Please, try again later.");
@@ -193,26 +266,196 @@ public class RMIClient extends Application {
       e.printStackTrace();
       return;
     }
+    leaveRace(); // the previous game may have been a race.
+    raceListener = newRaceListener;
+    raceTicket = newRaceTicket;
+    if (raceTicket != null) {
+      roomText.setText(raceTicket.getRoom()); // a new room can be shared with the opponents by its name.
+    }
+    sudoku = newSudoku;
+    difficulty = newDifficulty;
+    difficultyOption = newDifficultyOption;
+    moveLog.reset(); // a new game - new moves.
+    lastMoveNanos = System.nanoTime();
+    givens = findGivens();
+    snapshotWriter.delete(); // the snapshot of the previous game is not needed anymore.
     setSudokuTable(false); // the sudoku table is generated with unsolved numbers
     resetTimer(); // the timer is started/reset
     showComponents(); // the needed game components are shown.
+    playing = true;
+  }
+
+  /**
+   * Resumes the game saved when the application was closed, if there is one.
+   * The board, the difficulty, the username, the moves and the elapsed time are restored.
+   */
+  private void resumeGame() {
+    byte[] encoded = SnapshotWriter.read();
+    if (encoded == null) {
+      return;
+    }
+    GameSnapshot snapshot;
+    try {
+      snapshot = GameSnapshot.decode(encoded, moveLog);
+    } catch (IOException | RuntimeException e) { // a broken snapshot is dropped, a new game can be started.
+      e.printStackTrace();
+      moveLog.reset();
+      snapshotWriter.delete();
+      return;
+    }
+
+    sudoku = snapshot.toSudoku();
+    difficulty = snapshot.getDifficulty();
+    difficultyOption = snapshot.getDifficultyOption();
+    usernameText.setText(snapshot.getUsername());
+    givens = snapshot.getGivens();
+    lastMoveNanos = System.nanoTime();
+    setSudokuTable(false);
+    resetTimer();
+    start = new Date(start.getTime() - snapshot.getElapsedMillis()); // continue counting from the saved time.
+    showComponents();
+    playing = true;
+  }
+
+  /**
+   * Saves a snapshot of the game in progress. Only the encoding is done on the JavaFX thread,
+   * the file is written in the background. Races are not saved, they cannot be continued alone.
+   *
+   * @return true if there was a game to be saved.
+   */
+  private boolean saveSnapshot() {
+    if (!playing || raceTicket != null) {
+      return false;
+    }
+    long elapsedMillis = Calendar.getInstance().getTime().getTime() - start.getTime();
+    GameSnapshot snapshot = new GameSnapshot(difficulty, difficultyOption, elapsedMillis, usernameText.getText(), sudoku, givens);
+    snapshotWriter.write(snapshot.encode(moveLog));
+    return true;
+  }
+
+  /**
+   * Finds the cells which came filled with the sudoku.
+   *
+   * @return the givens, index = row * 9 + column.
+   */
+  private boolean[] findGivens() {
+    boolean[] sudokuGivens = new boolean[81];
+    for (int i = 0; i < 81; i++) {
+      sudokuGivens[i] = sudoku.getNumber(i / 9, i % 9, false) != 0;
+    }
+    return sudokuGivens;
+  }
+
+  private Sudoku fetchSudoku(ServerInterface serverInterface, Player.Difficulty newDifficulty, int newDifficultyOption)
+      throws IOException {
+    if (newDifficulty == Player.Difficulty.DAILY) {
+      return serverInterface.startDailySudoku().toSudoku();
+    }
+    return serverInterface.startSudoku(newDifficultyOption);
+  }
+
+  /**
+   * Shows the opponents' progress, received from the server, in the race label.
+   * The updates received by the listener of a previous race are ignored.
+   *
+   * @param listener the listener which received the updates {@link RaceProgressListener}
+   * @param updates  the latest progress of the opponents which changed {@link RaceUpdate}
+   */
+  private void showRaceProgress(RaceProgressListener listener, List<RaceUpdate> updates) {
+    if (raceTicket == null || listener != raceListener) {
+      return;
+    }
+    updates.forEach(update -> opponents.put(update.getId(), update));
+
+    StringBuilder text = new StringBuilder("Room: " + raceTicket.getRoom() + '\n');
+    for (RaceUpdate opponent : opponents.values()) {
+      text.append(opponent.getUsername()).append(": ");
+      text.append(opponent.isFinished() ? "finished #" + opponent.getPlace() : opponent.getCellsFilled() + "/81");
+      text.append('\n');
+    }
+    raceProgress.setText(text.toString());
+  }
+
+  /**
+   * Sends the player's progress to the race room, if the player is racing.
+   *
+   * @param solved true if the sudoku is solved.
+   */
+  private void reportRaceProgress(boolean solved) {
+    if (raceTicket == null) {
+      return;
+    }
+    RaceTicket ticket = raceTicket;
+    int cellsFilled = sudoku.countFilledCells();
+    raceReporter.execute(() -> {
+      try {
+        serverInterface.reportRaceProgress(ticket.getRoom(), ticket.getToken(), cellsFilled, solved);
+      } catch (RemoteException e) {
+        e.printStackTrace();
+      }
+    });
   }
 
   /**
-   * Shows the following components: timer, sudoku table, number options, solve button.
+   * Leaves the race room, if the player is racing, and clears the opponents' progress.
+   * The listener is unexported, so it doesn't keep the application running.
+   * A race cannot be continued alone, so it's not in progress anymore.
+   */
+  private void leaveRace() {
+    if (raceTicket != null) {
+      playing = false;
+      opponents.clear();
+      raceProgress.setText("");
+    }
+    leaveRace(raceTicket, raceListener);
+    raceTicket = null;
+    raceListener = null;
+  }
+
+  /**
+   * Unexports the listener and leaves the race room in the background.
+   *
+   * @param ticket   the ticket of the race room, may be null if it was not joined
+   * @param listener the listener, may be null if it was not exported
+   */
+  private void leaveRace(RaceTicket ticket, RaceProgressListener listener) {
+    if (listener != null) {
+      try {
+        UnicastRemoteObject.unexportObject(listener, true);
+      } catch (NoSuchObjectException e) { // already unexported
+        e.printStackTrace();
+      }
+    }
+    if (ticket == null) {
+      return;
+    }
+    raceReporter.execute(() -> {
+      try {
+        serverInterface.leaveRace(ticket.getRoom(), ticket.getToken());
+      } catch (RemoteException e) {
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Shows the following components: timer, sudoku table, number options, solve button
+   * and the race progress during a race.
    */
   private void showComponents() {
     timeArea.setVisible(true);
+    raceProgress.setVisible(raceTicket != null);
     solve.setVisible(true);
     numberOptions.setVisible(true);
     table.setVisible(true);
   }
 
   /**
-   * Hide the following components: timer, sudoku table, number options, solve button.
+   * Hide the following components: timer, sudoku table, number options, solve button, race progress.
    */
   private void hideComponents() {
     timeArea.setVisible(false);
+    raceProgress.setVisible(false);
     solve.setVisible(false);
     numberOptions.setVisible(false);
     table.setVisible(false);
@@ -229,7 +472,7 @@ public class RMIClient extends Application {
     table.setHgap(8);
     table.setAlignment(Pos.CENTER);
 
-    List<GridPane> gridBoxes = getGridBoxes(sudoku.getBoxes(solved));
+    List<GridPane> gridBoxes = getGridBoxes(sudoku.getBoxes(solved), solved);
     for (int i = 0; i < 9; i++) {
       table.add(gridBoxes.get(i), i % 3, i / 3);
     }
@@ -257,16 +500,23 @@ public class RMIClient extends Application {
 
   /**
    * Fills the TextArea with a {@link Timeline} outcome, which counts the seconds from the game start.
+   * Every {@link #SNAPSHOT_INTERVAL_SECONDS} cycles the game in progress is saved. The cycles are counted,
+   * because the shown seconds may skip or repeat a value when the timeline is late or the start was restored.
    */
   private void startTimeLine() {
     timeArea.setWrapText(true);
     timeArea.setPrefRowCount(1);
     timeArea.setVisible(false);
 
-    Date start = Calendar.getInstance().getTime();
+    start = Calendar.getInstance().getTime();
+    ticks = 0;
     timeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
       long countUp = Calendar.getInstance().getTime().getTime() - start.getTime(); // the time passed from the start
-      timeArea.setText("Time: " + TimeUnit.SECONDS.convert(countUp, TimeUnit.MILLISECONDS)); // convert to seconds from milliseconds
+      long seconds = TimeUnit.SECONDS.convert(countUp, TimeUnit.MILLISECONDS); // convert to seconds from milliseconds
+      timeArea.setText("Time: " + seconds);
+      if (++ticks % SNAPSHOT_INTERVAL_SECONDS == 0) { // the game in progress is saved at intervals.
+        saveSnapshot();
+      }
     }));
     timeline.setCycleCount(Animation.INDEFINITE); // no end specified.
     timeline.play();
@@ -274,12 +524,14 @@ public class RMIClient extends Application {
 
   /**
    * Creates a {@link List<GridPane>} which represents the sudoku boxes.
-   * Defines needed actions when an empty cell is filled. Disables the filled cells and changes their style.
+   * Defines needed actions when an empty cell is filled. Disables the given (or all, if solved) cells and changes their style.
+   * The cells filled by the player in a resumed game can still be changed.
    *
    * @param sudokuBoxes the sudoku boxes, represented by a {@link List<List<Integer>>}
+   * @param solved      true if the solved board is shown.
    * @return the JavaFx sudoku boxes. {@link List<GridPane>}
    */
-  private List<GridPane> getGridBoxes(List<List<Integer>> sudokuBoxes) {
+  private List<GridPane> getGridBoxes(List<List<Integer>> sudokuBoxes, boolean solved) {
     List<GridPane> gridBoxes = new ArrayList<>();
 
     for (List<Integer> box : sudokuBoxes) {
@@ -293,10 +545,14 @@ public class RMIClient extends Application {
         for (int i = start; i < end; i++) { // For each column from the sudoku -> [0;9)
           Button number = new Button(EMPTY_CELL); // creates an empty cell
 
-          if (box.get(i) != 0) {   // If the number is not 0, it cannot be changed and its style is bold.
+          int boxIdx = sudokuBoxes.indexOf(box);
+          boolean given = solved || givens[SudokuOperations.findSudokuRow(boxIdx, i) * 9 + SudokuOperations.findSudokuColumn(boxIdx, i)];
+          if (box.get(i) != 0 && given) {   // If the number is given, it cannot be changed and its style is bold.
             number.setStyle("-fx-opacity: 1.0;-fx-font-weight: bold;");
             number.setDisable(true);
             number.setText(String.valueOf(box.get(i)));
+          } else if (box.get(i) != 0) { // filled by the player before the game was saved.
+            number.setText(String.valueOf(box.get(i)));
           }
 
           final int currentColumn = i; // needed for the operations in the lambda expression.
@@ -315,8 +571,9 @@ public class RMIClient extends Application {
 
   /**
    * Sets the action when an empty cell is chosen: filling it with the chosen number option,
-   * find the real sudoku row and column from the sudoku board and change the number in the sudoku board.
+   * find the real sudoku row and column from the sudoku board, change the number in the sudoku board and record the move.
    * Then check if the board is already filled with right numbers, if so, end the game with success.
+   * During a race the progress is also sent to the race room.
    *
    * @param boxIdx        needed for finding the row and the column
    * @param number        the clicked button
@@ -333,7 +590,13 @@ public class RMIClient extends Application {
     int sudokuColumn = SudokuOperations.findSudokuColumn(boxIdx, currentColumn);
     sudoku.setNumber(sudokuRow, sudokuColumn, chosenNumber);
 
-    if (sudoku.checkIfSolved()) {
+    long now = System.nanoTime(); // record the move
+    moveLog.append(sudokuRow * 9 + sudokuColumn, chosenNumber, TimeUnit.NANOSECONDS.toMillis(now - lastMoveNanos));
+    lastMoveNanos = now;
+
+    boolean solved = sudoku.checkIfSolved();
+    reportRaceProgress(solved);
+    if (solved) {
       endOfGame();
     }
   }
@@ -343,18 +606,32 @@ public class RMIClient extends Application {
    * Resets the timer, hides all the components ans shows the initial popup with the difficulty options.
    */
   private void endOfGame() {
+    playing = false;
+    snapshotWriter.delete();
     Alert alert = new Alert(Alert.AlertType.INFORMATION);
     alert.setTitle("End of game");
     alert.setHeaderText("Congratulations!");
     alert.showAndWait();
 
-    CsvWriter.writeResultToFile(new Player(usernameText.getText(), difficulty, Player.Result.WIN));
+    writeResult(Player.Result.WIN);
 
     resetTimer();
     hideComponents();
     popup.show(stage);
   }
 
+  /**
+   * Writes the player's outcome and the moves of the game to files. The moves are cleared afterwards.
+   *
+   * @param result the result {@link Player.Result}
+   */
+  private void writeResult(Player.Result result) {
+    Player player = new Player(usernameText.getText(), difficulty, result);
+    CsvWriter.writeResultToFile(player);
+    MoveLogWriter.writeMovesToFile(player, moveLog);
+    moveLog.reset();
+  }
+
   /**
    * Clears the timeArea field. Stops the timeline. And restarts the timer.
    */
@@ -0,0 +1,29 @@
+package rmiclient;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javafx.application.Platform;
+import rmiserver.RaceListener;
+import rmiserver.RaceUpdate;
+
+/**
+ * The Race progress listener is exported to the RMI Server, which calls it back with the opponents' progress.
+ * The updates are handed over to the JavaFX thread together with the listener, because a new listener is exported
+ * for every race: the updates still queued from a previous race can be told apart and ignored.
+ */
+public class RaceProgressListener extends UnicastRemoteObject implements RaceListener {
+
+  private final transient BiConsumer<RaceProgressListener, List<RaceUpdate>> onProgress;
+
+  public RaceProgressListener(BiConsumer<RaceProgressListener, List<RaceUpdate>> onProgress) throws RemoteException {
+    super();
+    this.onProgress = onProgress;
+  }
+
+  @Override
+  public void onProgress(List<RaceUpdate> updates) throws RemoteException {
+    Platform.runLater(() -> onProgress.accept(this, updates));
+  }
+}
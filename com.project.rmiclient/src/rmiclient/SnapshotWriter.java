@@ -0,0 +1,95 @@
+package rmiclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SnapshotWriter saves the game in progress to a file on its own thread, so the JavaFX thread never waits for the disk.
+ * The new snapshot is forced to the disk before it atomically replaces the file, so even after a power loss
+ * the file contains either the previous or the new snapshot, never a partial one.
+ */
+public class SnapshotWriter {
+
+  private static final Path FILE = Path.of("game_snapshot.bin");
+  private static final Path TEMP_FILE = Path.of("game_snapshot.bin.tmp");
+
+  // Not a daemon thread: the last snapshot is still written after the window is closed.
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "snapshot-writer"));
+
+  /**
+   * Writes the encoded snapshot in the background. The writes are done in the order they were requested.
+   *
+   * @param snapshot the encoded snapshot {@link GameSnapshot}
+   */
+  public void write(byte[] snapshot) {
+    writer.execute(() -> {
+      try {
+        writeToDisk(snapshot);
+        try {
+          Files.move(TEMP_FILE, FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+          Files.move(TEMP_FILE, FILE, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (IOException ex) {
+        ex.printStackTrace();
+      }
+    });
+  }
+
+  private static void writeToDisk(byte[] snapshot) throws IOException {
+    try (FileChannel channel = FileChannel.open(TEMP_FILE,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Deletes the snapshot in the background, after the writes requested before.
+   */
+  public void delete() {
+    writer.execute(() -> {
+      try {
+        Files.deleteIfExists(FILE);
+      } catch (IOException ex) {
+        ex.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Finishes the requested writes and stops the writer thread.
+   */
+  public void shutdown() {
+    writer.shutdown();
+  }
+
+  /**
+   * Reads the saved snapshot. It's small enough to be read on the JavaFX thread when the game is started.
+   *
+   * @return the encoded snapshot or null if there is none.
+   */
+  public static byte[] read() {
+    if (!Files.exists(FILE)) {
+      return null;
+    }
+    try {
+      return Files.readAllBytes(FILE);
+    } catch (IOException ex) {
+      ex.printStackTrace();
+      return null;
+    }
+  }
+
+}
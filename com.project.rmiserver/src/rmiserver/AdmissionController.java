@@ -0,0 +1,151 @@
+package rmiserver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Admission controller limits how many requests are processed at the same time, how many of them may come
+ * from one client host and how fast each host may send requests.
+ * Rejected requests fail fast with {@link ServerBusyException}, they never wait.
+ * The state is only changed with CAS operations, so the controller doesn't become a bottleneck itself.
+ */
+class AdmissionController {
+
+  private static final int MAX_TRACKED_HOSTS = 10_000;
+
+  private final Semaphore permits;
+  private final int maxConcurrentPerHost;
+  private final long intervalNanos; // time needed for one token to be refilled
+  private final long burstNanos; // time needed for the whole bucket to be refilled
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * Creates the admission controller.
+   *
+   * @param maxConcurrent        how many requests may be processed at the same time
+   * @param maxConcurrentPerHost how many of them may come from the same host, less than maxConcurrent,
+   *                             so a single host cannot take all the permits
+   * @param requestsPerSecond    how many requests per second a host may send in the long run
+   * @param burst                how many requests a host may send at once
+   */
+  AdmissionController(int maxConcurrent, int maxConcurrentPerHost, int requestsPerSecond, int burst) {
+    this.permits = new Semaphore(maxConcurrent);
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+    this.burstNanos = intervalNanos * burst;
+  }
+
+  /**
+   * Checks only the rate limit of the host, for requests which are cheap enough to not need a permit.
+   *
+   * @param host the client host
+   * @throws ServerBusyException if the host sends requests too fast
+   */
+  void checkRate(String host) throws ServerBusyException {
+    takeToken(host);
+  }
+
+  /**
+   * Checks the rate limit of the host and takes a permit of the host and a permit of the server.
+   * The returned permit must be released when the request is processed.
+   *
+   * @param host the client host
+   * @return the permit {@link Permit}
+   * @throws ServerBusyException if the host sends requests too fast, already has too many requests in progress
+   *                             or the server is already fully loaded
+   */
+  Permit acquire(String host) throws ServerBusyException {
+    TokenBucket bucket = takeToken(host);
+    if (bucket.inFlight.incrementAndGet() > maxConcurrentPerHost) {
+      bucket.inFlight.decrementAndGet();
+      throw new ServerBusyException("Too many requests in progress from " + host + ". Please, try again later.");
+    }
+    if (!permits.tryAcquire()) {
+      bucket.inFlight.decrementAndGet();
+      throw new ServerBusyException("The server is busy. Please, try again later.");
+    }
+    return new Permit(bucket);
+  }
+
+  private TokenBucket takeToken(String host) throws ServerBusyException {
+    long now = System.nanoTime();
+    TokenBucket bucket = buckets.computeIfAbsent(host, key -> new TokenBucket(now));
+    if (!bucket.tryTake(now, intervalNanos, burstNanos)) {
+      throw new ServerBusyException("Too many requests from " + host + ". Please, try again later.");
+    }
+    if (buckets.size() > MAX_TRACKED_HOSTS) {
+      evictIdle(now);
+    }
+    return bucket;
+  }
+
+  /**
+   * Removes the buckets of the hosts which didn't send requests long enough for their bucket to be full
+   * and have no requests in progress.
+   * Only one thread evicts at a time, the others just go on.
+   */
+  private void evictIdle(long now) {
+    if (evicting.compareAndSet(false, true)) {
+      try {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+      } finally {
+        evicting.set(false);
+      }
+    }
+  }
+
+  /**
+   * The Token bucket of a host, kept as a single "theoretical arrival time" (GCRA):
+   * a request is allowed if it doesn't move this time further than the burst into the future.
+   */
+  private static final class TokenBucket {
+
+    private final AtomicLong arrival;
+    private final AtomicInteger inFlight = new AtomicInteger(); // requests of the host in progress
+
+    private TokenBucket(long now) {
+      this.arrival = new AtomicLong(now);
+    }
+
+    private boolean tryTake(long now, long intervalNanos, long burstNanos) {
+      while (true) {
+        long current = arrival.get();
+        long next = Math.max(current - now, 0) + now + intervalNanos; // nanoTime may overflow, so compare differences.
+        if (next - now > burstNanos) {
+          return false;
+        }
+        if (arrival.compareAndSet(current, next)) {
+          return true;
+        }
+      }
+    }
+
+    private boolean isFull(long now) {
+      return arrival.get() - now <= 0 && inFlight.get() == 0;
+    }
+  }
+
+  /**
+   * The Permit to process a request, returned by {@link #acquire(String)}.
+   * It keeps its own bucket, so it's released correctly even if the bucket was evicted meanwhile.
+   */
+  final class Permit {
+
+    private final TokenBucket bucket;
+
+    private Permit(TokenBucket bucket) {
+      this.bucket = bucket;
+    }
+
+    void release() {
+      bucket.inFlight.decrementAndGet();
+      permits.release();
+    }
+  }
+}
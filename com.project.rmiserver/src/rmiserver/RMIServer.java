@@ -11,6 +11,8 @@ import javafx.stage.Stage;
 public class RMIServer extends Application {
 
   public static final String SERVICE = "Service";
+  // How long a race callback to a client may take before it is treated as dead.
+  private static final String CALLBACK_TIMEOUT_MILLIS = "5000";
 
   @Override
   public void start(Stage stage) throws RemoteException, AlreadyBoundException {
@@ -21,6 +23,7 @@ public class RMIServer extends Application {
   }
 
   public static void main(String[] args) {
+    System.setProperty("sun.rmi.transport.tcp.responseTimeout", CALLBACK_TIMEOUT_MILLIS);
     launch(args);
   }
 }
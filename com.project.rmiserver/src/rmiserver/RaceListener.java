@@ -0,0 +1,20 @@
+package rmiserver;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * The interface Race listener which is exported by the client and called back by the server
+ * with the progress of the opponents in a race.
+ */
+public interface RaceListener extends Remote {
+
+  /**
+   * Receives a batch with the latest progress of every opponent which changed since the previous batch.
+   *
+   * @param updates the updates {@link RaceUpdate}
+   * @throws RemoteException the remote exception
+   */
+  void onProgress(List<RaceUpdate> updates) throws RemoteException;
+}
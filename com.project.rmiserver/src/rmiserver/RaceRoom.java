@@ -0,0 +1,167 @@
+package rmiserver;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Race room: all players in the room solve the same {@link Sudoku}.
+ * The progress of the players is not pushed on every move - on each tick every listener receives
+ * one batch with the latest progress of the opponents which changed since its previous batch.
+ */
+class RaceRoom {
+
+  private final SerializedSudoku sudoku;
+  private final Map<String, Participant> participants = new ConcurrentHashMap<>();
+  private final AtomicInteger finished = new AtomicInteger();
+  private final AtomicInteger joined = new AtomicInteger(); // the ids of the participants
+
+  RaceRoom(SerializedSudoku sudoku) {
+    this.sudoku = sudoku;
+  }
+
+  SerializedSudoku getSudoku() {
+    return sudoku;
+  }
+
+  /**
+   * Adds a player to the room.
+   *
+   * @param token    the token which identifies the player, given by the server
+   * @param username the username, shown to the opponents
+   * @param listener the listener {@link RaceListener}
+   */
+  void join(String token, String username, RaceListener listener) {
+    participants.put(token, new Participant(joined.incrementAndGet(), token, username, listener));
+  }
+
+  void leave(String token) {
+    participants.remove(token);
+  }
+
+  boolean isEmpty() {
+    return participants.isEmpty();
+  }
+
+  /**
+   * Stores the latest progress of the player. Only the last progress before a tick is sent to the opponents.
+   *
+   * @param token       the token of the player
+   * @param cellsFilled the filled cells
+   * @param solved      true if the player has solved the sudoku
+   */
+  void progress(String token, int cellsFilled, boolean solved) {
+    Participant participant = participants.get(token);
+    if (participant != null) {
+      participant.progress(cellsFilled, solved, finished);
+    }
+  }
+
+  /**
+   * Sends a batch to every listener which is not still busy with its previous batch.
+   * A slow listener just gets everything that changed meanwhile in its next batch, and a listener
+   * whose call failed is removed from the room, so neither of them can stall the others.
+   *
+   * @param delivery the executor which makes the remote calls.
+   */
+  void tick(Executor delivery) {
+    for (Participant listener : participants.values()) {
+      if (!listener.inFlight.compareAndSet(false, true)) {
+        continue;
+      }
+      // forget the opponents who left, so they are not kept alive by the ones still in the room.
+      listener.seen.keySet().removeIf(opponent -> participants.get(opponent.token) != opponent);
+
+      List<Progress> changed = new ArrayList<>();
+      for (Participant opponent : participants.values()) {
+        Progress progress = opponent.progress;
+        if (opponent != listener && listener.seen.getOrDefault(opponent, 0) < progress.version) {
+          changed.add(progress);
+        }
+      }
+
+      if (changed.isEmpty()) {
+        listener.inFlight.set(false);
+        continue;
+      }
+
+      try {
+        delivery.execute(() -> deliver(listener, changed));
+      } catch (RejectedExecutionException ex) {
+        listener.inFlight.set(false);
+      }
+    }
+  }
+
+  private void deliver(Participant listener, List<Progress> changed) {
+    List<RaceUpdate> batch = new ArrayList<>(changed.size());
+    for (Progress progress : changed) {
+      batch.add(progress.update);
+    }
+    try {
+      listener.listener.onProgress(batch);
+      for (Progress progress : changed) {
+        listener.seen.put(progress.participant, progress.version);
+      }
+    } catch (RemoteException ex) {
+      participants.remove(listener.token, listener); // dead or timed out client
+    } finally {
+      listener.inFlight.set(false);
+    }
+  }
+
+  /**
+   * The Participant: a player in the room with its listener and the progress seen by it.
+   */
+  private static final class Participant {
+
+    private final int id;
+    private final String token;
+    private final String username;
+    private final RaceListener listener;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    // The last sent version of every opponent; only used by the one who set inFlight.
+    private final Map<Participant, Integer> seen = new HashMap<>();
+    private volatile Progress progress;
+
+    private Participant(int id, String token, String username, RaceListener listener) {
+      this.id = id;
+      this.token = token;
+      this.username = username;
+      this.listener = listener;
+      this.progress = new Progress(this, new RaceUpdate(id, username, 0, 0), 1);
+    }
+
+    private synchronized void progress(int cellsFilled, boolean solved, AtomicInteger finished) {
+      Progress current = progress;
+      if (current.update.isFinished()) {
+        return;
+      }
+      int place = solved ? finished.incrementAndGet() : 0;
+      progress = new Progress(this, new RaceUpdate(id, username, cellsFilled, place), current.version + 1);
+    }
+  }
+
+  /**
+   * The Progress: the latest update of a participant and its version.
+   */
+  private static final class Progress {
+
+    private final Participant participant;
+    private final RaceUpdate update;
+    private final int version;
+
+    private Progress(Participant participant, RaceUpdate update, int version) {
+      this.participant = participant;
+      this.update = update;
+      this.version = version;
+    }
+  }
+}
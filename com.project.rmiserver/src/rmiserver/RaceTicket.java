@@ -0,0 +1,32 @@
+package rmiserver;
+
+import java.io.Serializable;
+
+/**
+ * The Race ticket is given by the server to a player who joined a race. The token identifies the player in the room,
+ * so players with the same username don't replace each other.
+ */
+public final class RaceTicket implements Serializable {
+
+  private final String room;
+  private final String token;
+  private final SerializedSudoku sudoku;
+
+  public RaceTicket(String room, String token, SerializedSudoku sudoku) {
+    this.room = room;
+    this.token = token;
+    this.sudoku = sudoku;
+  }
+
+  public String getRoom() {
+    return room;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public SerializedSudoku getSudoku() {
+    return sudoku;
+  }
+}
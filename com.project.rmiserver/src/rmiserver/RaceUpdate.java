@@ -0,0 +1,43 @@
+package rmiserver;
+
+import java.io.Serializable;
+
+/**
+ * The Race update contains the progress of a player in a race: id, username, filled cells and finish place.
+ * The id is the player's join number in the room. Unlike the username it's unique, and unlike the token
+ * it can be shown to the opponents.
+ */
+public final class RaceUpdate implements Serializable {
+
+  private final int id;
+  private final String username;
+  private final int cellsFilled;
+  private final int place; // 0 while the player hasn't finished.
+
+  public RaceUpdate(int id, String username, int cellsFilled, int place) {
+    this.id = id;
+    this.username = username;
+    this.cellsFilled = cellsFilled;
+    this.place = place;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public int getCellsFilled() {
+    return cellsFilled;
+  }
+
+  public int getPlace() {
+    return place;
+  }
+
+  public boolean isFinished() {
+    return place > 0;
+  }
+}
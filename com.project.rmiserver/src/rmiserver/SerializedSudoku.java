@@ -0,0 +1,42 @@
+package rmiserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * The Serialized sudoku: a {@link Sudoku} which is serialized only once and whose bytes are sent as they are
+ * to every client. Used for puzzles which are shared by many players, like the daily challenge.
+ */
+public final class SerializedSudoku implements Serializable {
+
+  private final byte[] bytes;
+
+  public SerializedSudoku(Sudoku sudoku) {
+    ByteArrayOutputStream bytesStream = new ByteArrayOutputStream();
+    try (ObjectOutputStream outputStream = new ObjectOutputStream(bytesStream)) {
+      outputStream.writeObject(sudoku);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    this.bytes = bytesStream.toByteArray();
+  }
+
+  /**
+   * Deserializes the bytes into a new {@link Sudoku}, so each caller gets its own board to play on.
+   *
+   * @return the sudoku {@link Sudoku}
+   * @throws IOException if the bytes cannot be read back
+   */
+  public Sudoku toSudoku() throws IOException {
+    try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Sudoku) inputStream.readObject();
+    } catch (ClassNotFoundException ex) {
+      throw new IOException(ex);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package rmiserver;
+
+import java.rmi.RemoteException;
+
+/**
+ * The Server busy exception is thrown when a request is rejected by the admission control:
+ * too many requests are being processed or the client sends requests too fast. The request can be retried later.
+ */
+public class ServerBusyException extends RemoteException {
+
+  public ServerBusyException(String message) {
+    super(message);
+  }
+}
@@ -8,6 +8,11 @@ import java.rmi.RemoteException;
  */
 public interface ServerInterface extends Remote {
 
+  /**
+   * How many numbers are hidden in the daily sudoku.
+   */
+  int DAILY_DIFFICULTY = 35;
+
   /**
    * Generates a {@link Sudoku} based on the given difficulty.
    *
@@ -16,4 +21,57 @@ public interface ServerInterface extends Remote {
    * @throws RemoteException the remote exception
    */
   Sudoku startSudoku(int difficulty) throws RemoteException;
+
+  /**
+   * Generates a {@link Sudoku} based on the given difficulty and seed.
+   * The same difficulty and seed always return the same puzzle.
+   *
+   * @param difficulty the difficulty  a number which represents how many numbers will be hidden.
+   * @param seed       the seed
+   * @return the sudoku {@link Sudoku}
+   * @throws RemoteException the remote exception
+   */
+  Sudoku startSudoku(int difficulty, long seed) throws RemoteException;
+
+  /**
+   * Returns the daily challenge: the same puzzle for every client during the day (UTC).
+   *
+   * @return the serialized daily sudoku {@link SerializedSudoku}
+   * @throws RemoteException the remote exception
+   */
+  SerializedSudoku startDailySudoku() throws RemoteException;
+
+  /**
+   * Joins the race room with the given name, or a new room if no name is given. The first player creates the room
+   * with the given difficulty, everyone who joins later receives the same puzzle.
+   * The opponents' progress is pushed to the listener.
+   *
+   * @param room       the room name, null or empty for a new room
+   * @param username   the username, shown to the opponents
+   * @param difficulty the difficulty  a number which represents how many numbers will be hidden.
+   * @param listener   the listener {@link RaceListener} exported by the client
+   * @return the race ticket {@link RaceTicket} with the room name, the player's token and the sudoku
+   * @throws RemoteException the remote exception
+   */
+  RaceTicket joinRace(String room, String username, int difficulty, RaceListener listener) throws RemoteException;
+
+  /**
+   * Reports the progress of the player in the race room.
+   *
+   * @param room        the room name
+   * @param token       the token from the player's {@link RaceTicket}
+   * @param cellsFilled how many cells of the board are filled
+   * @param solved      true if the player has solved the sudoku
+   * @throws RemoteException the remote exception
+   */
+  void reportRaceProgress(String room, String token, int cellsFilled, boolean solved) throws RemoteException;
+
+  /**
+   * Leaves the race room. The room is closed when the last player leaves.
+   *
+   * @param room  the room name
+   * @param token the token from the player's {@link RaceTicket}
+   * @throws RemoteException the remote exception
+   */
+  void leaveRace(String room, String token) throws RemoteException;
 }
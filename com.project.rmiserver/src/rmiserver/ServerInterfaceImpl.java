@@ -1,16 +1,207 @@
 package rmiserver;
 
 import java.rmi.RemoteException;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.UnicastRemoteObject;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class ServerInterfaceImpl extends UnicastRemoteObject implements ServerInterface {
 
+  public static final long RACE_TICK_MILLIS = 250;
+  public static final int MAX_CONCURRENT_REQUESTS = Runtime.getRuntime().availableProcessors() * 2;
+  // Less than the whole server, so a single host cannot starve the others.
+  public static final int MAX_CONCURRENT_REQUESTS_PER_HOST = Math.max(1, MAX_CONCURRENT_REQUESTS / 4);
+  public static final int REQUESTS_PER_SECOND = 5;
+  public static final int REQUESTS_BURST = 20;
+
+  private final AdmissionController admission =
+      new AdmissionController(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS_PER_HOST, REQUESTS_PER_SECOND, REQUESTS_BURST);
+  private volatile DailySudoku daily;
+  private final Map<String, RaceRoom> races = new ConcurrentHashMap<>();
+  private final Random raceSeeds = new Random();
+  private final ScheduledExecutorService raceTicker = Executors.newSingleThreadScheduledExecutor(daemon("race-ticker"));
+  // Each listener has at most one call in flight, so a slow listener holds only its own thread.
+  private final ExecutorService raceDelivery = Executors.newCachedThreadPool(daemon("race-delivery"));
+
   public ServerInterfaceImpl() throws RemoteException {
     super();
+    raceTicker.scheduleAtFixedRate(this::tickRaces, RACE_TICK_MILLIS, RACE_TICK_MILLIS, TimeUnit.MILLISECONDS);
   }
 
   @Override
   public Sudoku startSudoku(int difficulty) throws RemoteException {
-    return new Sudoku(difficulty);
+    checkDifficulty(difficulty);
+    AdmissionController.Permit permit = admission.acquire(clientHost());
+    try {
+      return new Sudoku(difficulty);
+    } finally {
+      permit.release();
+    }
+  }
+
+  @Override
+  public Sudoku startSudoku(int difficulty, long seed) throws RemoteException {
+    checkDifficulty(difficulty);
+    AdmissionController.Permit permit = admission.acquire(clientHost());
+    try {
+      return new Sudoku(difficulty, seed);
+    } finally {
+      permit.release();
+    }
+  }
+
+  @Override
+  public SerializedSudoku startDailySudoku() throws RemoteException {
+    admission.checkRate(clientHost()); // generated once per day, so it doesn't need a permit.
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    DailySudoku current = daily;
+    if (current == null || !current.date.equals(today)) {
+      current = generateDaily(today);
+    }
+    return current.sudoku;
+  }
+
+  @Override
+  public RaceTicket joinRace(String room, String username, int difficulty, RaceListener listener)
+      throws RemoteException {
+    checkDifficulty(difficulty);
+    AdmissionController.Permit permit = admission.acquire(clientHost());
+    try {
+      String name = room == null || room.isBlank() ? Long.toString(raceSeeds.nextLong() & Long.MAX_VALUE, 36) : room.strip();
+      String token = UUID.randomUUID().toString();
+      SerializedSudoku sudoku = null;
+      RaceRoom race;
+      while ((race = joinRoom(name, token, username, listener, sudoku)) == null) {
+        // The room doesn't exist: the sudoku is generated outside of compute(),
+        // which locks the map bin and would stall tickRaces() meanwhile.
+        sudoku = new SerializedSudoku(new Sudoku(difficulty, raceSeeds.nextLong()));
+      }
+      return new RaceTicket(name, token, race.getSudoku());
+    } finally {
+      permit.release();
+    }
+  }
+
+  @Override
+  public void reportRaceProgress(String room, String token, int cellsFilled, boolean solved)
+      throws RemoteException {
+    RaceRoom race = races.get(room);
+    if (race != null) {
+      race.progress(token, cellsFilled, solved);
+    }
+  }
+
+  @Override
+  public void leaveRace(String room, String token) throws RemoteException {
+    races.computeIfPresent(room, (name, race) -> {
+      race.leave(token);
+      return race.isEmpty() ? null : race;
+    });
+  }
+
+  /**
+   * Joins the room, atomically with the removal of empty rooms in {@link #tickRaces()}.
+   * The room is created only if a sudoku is given, otherwise a missing room is not joined.
+   *
+   * @return the joined room or null if it doesn't exist and no sudoku is given.
+   */
+  private RaceRoom joinRoom(String name, String token, String username, RaceListener listener, SerializedSudoku sudoku) {
+    return races.compute(name, (key, current) -> {
+      if (current == null) {
+        if (sudoku == null) {
+          return null;
+        }
+        current = new RaceRoom(sudoku);
+      }
+      current.join(token, username, listener);
+      return current;
+    });
+  }
+
+  /**
+   * Sends the batched progress in every race room and closes the rooms left by all players.
+   */
+  private void tickRaces() {
+    for (String room : races.keySet()) {
+      RaceRoom race = races.computeIfPresent(room, (name, current) -> current.isEmpty() ? null : current);
+      if (race == null) {
+        continue;
+      }
+      try {
+        race.tick(raceDelivery);
+      } catch (RuntimeException ex) { // an exception would cancel the ticker for all rooms
+        ex.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Rejects the difficulties which are not a number of cells of the board, before any work is done for them.
+   *
+   * @param difficulty how many numbers will be hidden
+   */
+  private static void checkDifficulty(int difficulty) {
+    if (difficulty < 0 || difficulty > 81) {
+      throw new IllegalArgumentException("The difficulty must be between 0 and 81: " + difficulty);
+    }
+  }
+
+  /**
+   * Gets the host of the client which made the current remote call.
+   *
+   * @return the client host or "local" if the method is not called through RMI.
+   */
+  private static String clientHost() {
+    try {
+      return RemoteServer.getClientHost();
+    } catch (ServerNotActiveException ex) {
+      return "local";
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Generates the daily sudoku only once per day: callers which were waiting for the lock reuse
+   * the already generated one. The seed is the day, so a restarted server returns the same puzzle.
+   */
+  private synchronized DailySudoku generateDaily(LocalDate today) {
+    DailySudoku current = daily;
+    if (current == null || !current.date.equals(today)) {
+      current = new DailySudoku(today, new SerializedSudoku(new Sudoku(DAILY_DIFFICULTY, today.toEpochDay())));
+      daily = current;
+    }
+    return current;
+  }
+
+  /**
+   * The daily sudoku and the day it belongs to.
+   */
+  private static final class DailySudoku {
+
+    private final LocalDate date;
+    private final SerializedSudoku sudoku;
+
+    private DailySudoku(LocalDate date, SerializedSudoku sudoku) {
+      this.date = date;
+      this.sudoku = sudoku;
+    }
   }
 }
@@ -12,8 +12,37 @@ public class Sudoku implements Serializable {
 
   private List<List<Integer>> board; // The internal lists are the columns.
   private List<List<Integer>> solvedBoard;
+  private transient Random random; // Only needed while the board is generated.
 
   public Sudoku(int difficulty) {
+    this(difficulty, new Random());
+  }
+
+  /**
+   * Creates a sudoku whose hidden cells are chosen by a {@link Random} seeded with the given seed,
+   * so the same difficulty and seed always produce the same puzzle.
+   *
+   * @param difficulty the difficulty - how many numbers will be hidden.
+   * @param seed       the seed
+   */
+  public Sudoku(int difficulty, long seed) {
+    this(difficulty, new Random(seed));
+  }
+
+  /**
+   * Restores a sudoku from its cells, for example from a saved game.
+   * The cells are given row by row: index = row * 9 + column.
+   *
+   * @param cells       the cells of the board, 0 for the empty ones
+   * @param solvedCells the cells of the solved board
+   */
+  public Sudoku(int[] cells, int[] solvedCells) {
+    this.board = toBoard(cells);
+    this.solvedBoard = toBoard(solvedCells);
+  }
+
+  private Sudoku(int difficulty, Random random) {
+    this.random = random;
     clearBoard(); // Fill the board with 0.
     generate(); // Generates a filled board.
     copy();  // Save it to the solved board.
@@ -32,6 +61,27 @@ public class Sudoku implements Serializable {
     board.get(row).set(column, value);
   }
 
+  /**
+   * Gets the number in the given cell.
+   *
+   * @param row    the row
+   * @param column the column
+   * @param solved the solved - needed for the decision from which board the number is needed.
+   * @return the number, 0 if the cell is empty.
+   */
+  public int getNumber(int row, int column, boolean solved) {
+    return solved ? solvedBoard.get(row).get(column) : board.get(row).get(column);
+  }
+
+  /**
+   * Counts the filled (non-zero) cells of the board.
+   *
+   * @return the number of filled cells.
+   */
+  public int countFilledCells() {
+    return (int) board.stream().flatMap(List::stream).filter(number -> number != 0).count();
+  }
+
   /**
    * Check if solved: checks the rows, columns and boxes for any zeros and if they all contain 9 numbers.
    *
@@ -127,7 +177,7 @@ public class Sudoku implements Serializable {
   }
 
   private int getRandomIndex() {
-    return new Random().nextInt(9);
+    return random.nextInt(9);
   }
 
   private void generate() {
@@ -157,6 +207,21 @@ public class Sudoku implements Serializable {
     }
   }
 
+  private static List<List<Integer>> toBoard(int[] cells) {
+    if (cells.length != 81) {
+      throw new IllegalArgumentException("A sudoku board has 81 cells, but " + cells.length + " were given.");
+    }
+    List<List<Integer>> rows = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      List<Integer> row = new ArrayList<>();
+      for (int j = 0; j < 9; j++) {
+        row.add(cells[i * 9 + j]);
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
   private void clearBoard() {
     this.board = new ArrayList<>();
     for (int i = 0; i < 9; i++) {
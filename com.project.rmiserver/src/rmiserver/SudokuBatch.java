@@ -0,0 +1,250 @@
+package rmiserver;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Sudoku batch: a headless command which solves, checks for a unique solution and grades every sudoku in a file,
+ * without the RMI Server. Each line of the input holds a sudoku in its first 81 characters, row by row,
+ * with '0' or '.' for the empty cells. Each line of the output is:
+ * <pre>puzzle,solution,status,grade</pre>
+ * The input is read in chunks and solved in batches on a work-stealing pool. Only a limited number of batches
+ * is kept in memory, and the results are written in the order of the input.
+ * Usage: {@code SudokuBatch <input> <output> [threads]}
+ */
+public class SudokuBatch {
+
+  private static final int BATCH_SIZE = 4096; // puzzles per batch
+  private static final int LEAF_SIZE = 128; // puzzles solved by one task without splitting
+  private static final int READ_BUFFER_SIZE = 1 << 20;
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+  private static final byte[][] STATUS_NAMES = names(SudokuSolver.Status.values());
+  private static final byte[][] GRADE_NAMES = names(SudokuSolver.Grade.values());
+
+  private final ForkJoinPool pool;
+  private final int maxBatchesInFlight;
+  private final long[] statusCounts = new long[SudokuSolver.Status.values().length];
+  private long puzzles;
+
+  public SudokuBatch(int threads) {
+    this.pool = new ForkJoinPool(threads);
+    this.maxBatchesInFlight = threads * 4;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: SudokuBatch <input> <output> [threads]");
+      System.exit(2);
+    }
+    int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    SudokuBatch batch = new SudokuBatch(threads);
+    long start = System.nanoTime();
+    batch.process(Path.of(args[0]), Path.of(args[1]));
+    long elapsed = System.nanoTime() - start;
+
+    System.err.println(batch.getReport(elapsed));
+  }
+
+  /**
+   * Processes all the sudokus from the input file and writes the results to the output file.
+   *
+   * @param input  the input file
+   * @param output the output file
+   * @throws IOException if reading or writing failed
+   */
+  public void process(Path input, Path output) throws IOException {
+    Deque<Batch> inFlight = new ArrayDeque<>();
+    try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+         OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output), WRITE_BUFFER_SIZE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+      byte[] bytes = buffer.array();
+      Batch batch = new Batch();
+      int lineLength = 0;
+
+      while (channel.read(buffer) != -1) {
+        for (int i = 0; i < buffer.position(); i++) {
+          byte current = bytes[i];
+          if (current == '\n') {
+            if (lineLength > 0 && batch.addLine(lineLength) == BATCH_SIZE) {
+              batch = submit(batch, inFlight, outputStream);
+            }
+            lineLength = 0;
+          } else if (current != '\r') {
+            batch.setChar(lineLength++, current); // only the first 81 characters are kept.
+          }
+        }
+        buffer.clear();
+      }
+      if (lineLength > 0) { // the last line has no line break
+        batch.addLine(lineLength);
+      }
+      if (batch.count > 0) {
+        submit(batch, inFlight, outputStream);
+      }
+
+      while (!inFlight.isEmpty()) {
+        write(inFlight.poll(), outputStream);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Gets the report: how many sudokus were processed, with each status, and how fast.
+   *
+   * @param elapsedNanos the time the processing took
+   * @return the report
+   */
+  public String getReport(long elapsedNanos) {
+    double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%d puzzles in %.2f s (%.0f puzzles/s)", puzzles, seconds, puzzles / seconds));
+    SudokuSolver.Status[] statuses = SudokuSolver.Status.values();
+    for (int i = 0; i < statuses.length; i++) {
+      report.append(", ").append(statuses[i]).append(": ").append(statusCounts[i]);
+    }
+    return report.toString();
+  }
+
+  /**
+   * Starts solving the full batch. If too many batches are in flight, the oldest one is written first.
+   *
+   * @return a new empty batch
+   */
+  private Batch submit(Batch batch, Deque<Batch> inFlight, OutputStream outputStream) throws IOException {
+    batch.task = pool.submit(new SolveTask(batch, 0, batch.count));
+    inFlight.add(batch);
+    if (inFlight.size() >= maxBatchesInFlight) {
+      write(inFlight.poll(), outputStream);
+    }
+    return new Batch();
+  }
+
+  private void write(Batch batch, OutputStream outputStream) throws IOException {
+    batch.task.join();
+    for (int i = 0; i < batch.count; i++) {
+      int offset = i * 81;
+      outputStream.write(batch.lines, offset, Math.min(batch.lengths[i], 81));
+      outputStream.write(',');
+      byte status = batch.statuses[i];
+      if (status == SudokuSolver.Status.UNIQUE.ordinal() || status == SudokuSolver.Status.MULTIPLE.ordinal()) {
+        outputStream.write(batch.solutions, offset, 81);
+      }
+      outputStream.write(',');
+      outputStream.write(STATUS_NAMES[status]);
+      outputStream.write(',');
+      if (status == SudokuSolver.Status.UNIQUE.ordinal()) {
+        outputStream.write(GRADE_NAMES[batch.grades[i]]);
+      }
+      outputStream.write('\n');
+      statusCounts[status]++;
+    }
+    puzzles += batch.count;
+  }
+
+  private static byte[][] names(Enum<?>[] values) {
+    byte[][] names = new byte[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+    }
+    return names;
+  }
+
+  /**
+   * The Batch: the lines read from the input and their results.
+   */
+  private static final class Batch {
+
+    private final byte[] lines = new byte[BATCH_SIZE * 81];
+    private final int[] lengths = new int[BATCH_SIZE];
+    private final byte[] solutions = new byte[BATCH_SIZE * 81];
+    private final byte[] statuses = new byte[BATCH_SIZE];
+    private final byte[] grades = new byte[BATCH_SIZE];
+    private int count;
+    private ForkJoinTask<?> task;
+
+    private void setChar(int position, byte current) {
+      if (position < 81) {
+        lines[count * 81 + position] = current;
+      }
+    }
+
+    private int addLine(int length) {
+      lengths[count] = length;
+      return ++count;
+    }
+  }
+
+  /**
+   * The Solve task solves a part of a batch. Big parts are split, so idle threads can steal the halves.
+   */
+  private static final class SolveTask extends RecursiveAction {
+
+    private final Batch batch;
+    private final int from;
+    private final int to;
+
+    private SolveTask(Batch batch, int from, int to) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_SIZE) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new SolveTask(batch, from, middle), new SolveTask(batch, middle, to));
+        return;
+      }
+
+      SudokuSolver solver = new SudokuSolver();
+      int[] puzzle = new int[81];
+      int[] solution = new int[81];
+      for (int i = from; i < to; i++) {
+        SudokuSolver.Status status = parse(i, puzzle) ? solver.solve(puzzle) : SudokuSolver.Status.INVALID;
+        batch.statuses[i] = (byte) status.ordinal();
+        if (status == SudokuSolver.Status.UNIQUE || status == SudokuSolver.Status.MULTIPLE) {
+          solver.getSolution(solution);
+          for (int j = 0; j < 81; j++) {
+            batch.solutions[i * 81 + j] = (byte) ('0' + solution[j]);
+          }
+          batch.grades[i] = (byte) solver.getGrade().ordinal();
+        }
+      }
+    }
+
+    private boolean parse(int line, int[] puzzle) {
+      if (batch.lengths[line] < 81) {
+        return false;
+      }
+      int offset = line * 81;
+      for (int j = 0; j < 81; j++) {
+        byte current = batch.lines[offset + j];
+        if (current >= '1' && current <= '9') {
+          puzzle[j] = current - '0';
+        } else if (current == '0' || current == '.') {
+          puzzle[j] = 0;
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
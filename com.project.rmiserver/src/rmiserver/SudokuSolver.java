@@ -0,0 +1,177 @@
+package rmiserver;
+
+/**
+ * The Sudoku solver: a backtracking search over bit masks which always continues with the cell with the fewest
+ * candidates. It counts up to two solutions, so it also tells if the solution is unique, and grades the sudoku
+ * by how many guesses were needed to reach the solution.
+ * A solver is not thread safe, but it can be reused for any number of sudokus without allocating.
+ */
+public class SudokuSolver {
+
+  private static final int ALL_DIGITS = 0x3FE; // bits 1..9
+  private static final int[] ROW = new int[81];
+  private static final int[] COLUMN = new int[81];
+  private static final int[] BOX = new int[81];
+
+  static {
+    for (int i = 0; i < 81; i++) {
+      ROW[i] = i / 9;
+      COLUMN[i] = i % 9;
+      BOX[i] = (i / 27) * 3 + (i % 9) / 3;
+    }
+  }
+
+  private final int[] cells = new int[81];
+  private final int[] solution = new int[81];
+  private final int[] rows = new int[9]; // the used digits in each row, column and box.
+  private final int[] columns = new int[9];
+  private final int[] boxes = new int[9];
+  private int solutions;
+  private int guesses;
+  private int guessesToSolution;
+
+  /**
+   * Solves the sudoku.
+   *
+   * @param puzzle the cells, row by row (index = row * 9 + column), 0 for the empty ones
+   * @return the status {@link Status}
+   */
+  public Status solve(int[] puzzle) {
+    for (int i = 0; i < 9; i++) {
+      rows[i] = 0;
+      columns[i] = 0;
+      boxes[i] = 0;
+    }
+    for (int i = 0; i < 81; i++) {
+      int digit = puzzle[i];
+      cells[i] = digit;
+      if (digit == 0) {
+        continue;
+      }
+      int bit = 1 << digit;
+      if (digit < 0 || digit > 9 || ((rows[ROW[i]] | columns[COLUMN[i]] | boxes[BOX[i]]) & bit) != 0) {
+        return Status.INVALID; // the given numbers already break the rules.
+      }
+      place(i, bit);
+    }
+
+    solutions = 0;
+    guesses = 0;
+    search();
+
+    if (solutions == 0) {
+      return Status.UNSOLVABLE;
+    }
+    return solutions == 1 ? Status.UNIQUE : Status.MULTIPLE;
+  }
+
+  /**
+   * Gets the first solution found by the last {@link #solve(int[])}. Valid only if the sudoku had a solution.
+   *
+   * @param digits the array which receives the 81 digits, row by row
+   */
+  public void getSolution(int[] digits) {
+    System.arraycopy(solution, 0, digits, 0, 81);
+  }
+
+  /**
+   * Grades the last solved sudoku by the guesses needed to reach the first solution.
+   *
+   * @return the grade {@link Grade}
+   */
+  public Grade getGrade() {
+    if (guessesToSolution == 0) {
+      return Grade.EASY;
+    }
+    if (guessesToSolution <= 3) {
+      return Grade.MEDIUM;
+    }
+    return guessesToSolution <= 20 ? Grade.HARD : Grade.EXPERT;
+  }
+
+  /**
+   * Searches the solutions until the second one is found.
+   *
+   * @return true if the search must stop.
+   */
+  private boolean search() {
+    int best = -1;
+    int bestCandidates = 0;
+    int bestCount = 10;
+    for (int i = 0; i < 81; i++) {
+      if (cells[i] != 0) {
+        continue;
+      }
+      int candidates = ~(rows[ROW[i]] | columns[COLUMN[i]] | boxes[BOX[i]]) & ALL_DIGITS;
+      int count = Integer.bitCount(candidates);
+      if (count == 0) {
+        return false; // dead end
+      }
+      if (count < bestCount) {
+        best = i;
+        bestCandidates = candidates;
+        bestCount = count;
+        if (count == 1) {
+          break;
+        }
+      }
+    }
+
+    if (best == -1) { // all cells are filled
+      if (++solutions == 1) {
+        System.arraycopy(cells, 0, solution, 0, 81);
+        guessesToSolution = guesses;
+      }
+      return solutions > 1;
+    }
+
+    if (bestCount > 1) {
+      guesses++;
+    }
+    while (bestCandidates != 0) {
+      int bit = bestCandidates & -bestCandidates;
+      bestCandidates ^= bit;
+      cells[best] = Integer.numberOfTrailingZeros(bit);
+      place(best, bit);
+      boolean stop = search();
+      remove(best, bit);
+      cells[best] = 0;
+      if (stop) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void place(int cell, int bit) {
+    rows[ROW[cell]] |= bit;
+    columns[COLUMN[cell]] |= bit;
+    boxes[BOX[cell]] |= bit;
+  }
+
+  private void remove(int cell, int bit) {
+    rows[ROW[cell]] &= ~bit;
+    columns[COLUMN[cell]] &= ~bit;
+    boxes[BOX[cell]] &= ~bit;
+  }
+
+  /**
+   * The Status of a solved sudoku.
+   */
+  public enum Status {
+    UNIQUE,
+    MULTIPLE,
+    UNSOLVABLE,
+    INVALID;
+  }
+
+  /**
+   * The Grade of a sudoku with a unique solution.
+   */
+  public enum Grade {
+    EASY,
+    MEDIUM,
+    HARD,
+    EXPERT;
+  }
+}